@@ -0,0 +1,80 @@
+package io.jzheaux.springsecurity.resolutions;
+
+import org.springframework.data.spel.spi.EvaluationContextExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Exposes the versions named by the current request's {@code If-Match} header, so that an
+ * {@code UPDATE} can check them in the same statement, like
+ * {@code ... AND (:#{ifMatchAny} = TRUE OR version IN :#{ifMatch})}.
+ *
+ * {@code ifMatchAny} is {@code true} when there is no such header or when it is {@code *}.
+ * Otherwise, {@code ifMatch} holds the version of each strong tag in the header's list; weak and
+ * malformed tags can never match, so they are left out, and a header with none of them comes
+ * through as a version that no row has.
+ *
+ * This reads the header of whatever request is bound to the current thread, so every such
+ * {@code UPDATE} made while handling a request that carries {@code If-Match} is checked against
+ * it, whichever resource the header was meant for. Requests that update more than the one
+ * resource they name should not use these queries.
+ */
+@Component
+public class IfMatchEvaluationContextExtension implements EvaluationContextExtension {
+	static final long NO_VERSION = -1;
+
+	@Override
+	public String getExtensionId() {
+		return "conditionalRequest";
+	}
+
+	@Override
+	public Map<String, Object> getProperties() {
+		List<Long> versions = versions(ifMatch());
+		Map<String, Object> properties = new HashMap<>();
+		properties.put("ifMatchAny", versions == null);
+		properties.put("ifMatch", (versions == null) ? Collections.singletonList(NO_VERSION) : versions);
+		return properties;
+	}
+
+	static String ifMatch() {
+		RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+		if (!(attributes instanceof ServletRequestAttributes)) {
+			return null;
+		}
+		return ((ServletRequestAttributes) attributes).getRequest().getHeader(HttpHeaders.IF_MATCH);
+	}
+
+	/**
+	 * Reads the versions out of an If-Match header, or {@code null} when any version matches
+	 */
+	static List<Long> versions(String ifMatch) {
+		if (ifMatch == null || "*".equals(ifMatch.trim())) {
+			return null;
+		}
+		List<Long> versions = new ArrayList<>();
+		for (String tag : ifMatch.split(",")) {
+			String etag = tag.trim();
+			if (etag.length() > 2 && etag.startsWith("\"") && etag.endsWith("\"")) {
+				try {
+					versions.add(Long.valueOf(etag.substring(1, etag.length() - 1)));
+				} catch (NumberFormatException ignored) {
+					// can never match
+				}
+			}
+		}
+		if (versions.isEmpty()) {
+			versions.add(NO_VERSION);
+		}
+		return versions;
+	}
+}
@@ -0,0 +1,54 @@
+package io.jzheaux.springsecurity.resolutions;
+
+/**
+ * Statement count, rows read or written, and time spent in JDBC for the work done
+ * on the current thread since {@link #start()}.
+ *
+ * Populated by {@link QueryStatisticsListener} and {@link QueryStatisticsInterceptor};
+ * anything that runs outside of a started scope is not recorded.
+ */
+public final class QueryStatistics {
+	private static final ThreadLocal<QueryStatistics> current = new ThreadLocal<>();
+
+	private long statements;
+	private long rows;
+	private long nanos;
+
+	private QueryStatistics() {
+	}
+
+	public static QueryStatistics start() {
+		QueryStatistics statistics = new QueryStatistics();
+		current.set(statistics);
+		return statistics;
+	}
+
+	public static void stop() {
+		current.remove();
+	}
+
+	static QueryStatistics current() {
+		return current.get();
+	}
+
+	void statement(long nanos) {
+		this.statements++;
+		this.nanos += nanos;
+	}
+
+	void rows(long rows) {
+		this.rows += rows;
+	}
+
+	public long getStatements() {
+		return statements;
+	}
+
+	public long getRows() {
+		return rows;
+	}
+
+	public long getNanos() {
+		return nanos;
+	}
+}
@@ -0,0 +1,56 @@
+package io.jzheaux.springsecurity.resolutions;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import javax.sql.DataSource;
+
+@Configuration
+public class QueryStatisticsConfiguration {
+	@Bean
+	static BeanPostProcessor queryStatisticsDataSource() {
+		return new BeanPostProcessor() {
+			@Override
+			public Object postProcessAfterInitialization(Object bean, String beanName) {
+				if (bean instanceof DataSource && !(bean instanceof ProxyDataSource)) {
+					return ProxyDataSourceBuilder.create(beanName, (DataSource) bean)
+							.listener(new QueryStatisticsListener())
+							.build();
+				}
+				return bean;
+			}
+		};
+	}
+
+	@Bean
+	HibernatePropertiesCustomizer queryStatisticsInterceptor() {
+		return properties -> properties.put(AvailableSettings.INTERCEPTOR, new QueryStatisticsInterceptor());
+	}
+
+	/**
+	 * The {@code X-SQL-*} headers hand the query budget of each request to whoever made it, so they
+	 * are only sent when {@code resolutions.query-statistics.headers} is {@code true}
+	 */
+	@Bean
+	FilterRegistrationBean<QueryStatisticsFilter> queryStatisticsFilter(ObjectProvider<MeterRegistry> registry,
+			@Value("${resolutions.query-statistics.headers:false}") boolean writeHeaders) {
+		// without Actuator there is no registry to publish to, so keep the meters in memory
+		MeterRegistry meters = registry.getIfAvailable(SimpleMeterRegistry::new);
+		FilterRegistrationBean<QueryStatisticsFilter> registration =
+				new FilterRegistrationBean<>(new QueryStatisticsFilter(meters, writeHeaders));
+		// ahead of Spring Security so that authentication queries are counted too
+		registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+		return registration;
+	}
+}
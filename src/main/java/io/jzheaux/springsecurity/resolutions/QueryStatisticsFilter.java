@@ -0,0 +1,110 @@
+package io.jzheaux.springsecurity.resolutions;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.web.util.OnCommittedResponseWrapper;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records the {@link QueryStatistics} of each request, authentication included, as
+ * metrics tagged by endpoint and authentication mechanism.
+ *
+ * When enabled, which is off by default, the same numbers are also sent back in {@code X-SQL-*}
+ * response headers so that tests and developers can see the query budget of any single request.
+ */
+public class QueryStatisticsFilter extends OncePerRequestFilter {
+	static final String STATEMENTS_HEADER = "X-SQL-Statements";
+	static final String ROWS_HEADER = "X-SQL-Rows";
+	static final String TIME_HEADER = "X-SQL-Time";
+
+	private final MeterRegistry meters;
+	private final boolean writeHeaders;
+
+	public QueryStatisticsFilter(MeterRegistry meters, boolean writeHeaders) {
+		this.meters = meters;
+		this.writeHeaders = writeHeaders;
+	}
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+			throws ServletException, IOException {
+		QueryStatistics statistics = QueryStatistics.start();
+		QueryStatisticsResponse wrapped = new QueryStatisticsResponse(response, statistics);
+		try {
+			chain.doFilter(request, wrapped);
+		} finally {
+			wrapped.writeHeaders();
+			QueryStatistics.stop();
+			record(request, statistics);
+		}
+	}
+
+	private void record(HttpServletRequest request, QueryStatistics statistics) {
+		Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+		Tags tags = Tags.of(
+				"method", request.getMethod(),
+				"uri", (pattern == null) ? "UNKNOWN" : pattern.toString(),
+				"auth", mechanism(request));
+		DistributionSummary.builder("resolutions.sql.statements").tags(tags)
+				.register(this.meters).record(statistics.getStatements());
+		DistributionSummary.builder("resolutions.sql.rows").tags(tags)
+				.register(this.meters).record(statistics.getRows());
+		this.meters.timer("resolutions.sql.time", tags)
+				.record(statistics.getNanos(), TimeUnit.NANOSECONDS);
+	}
+
+	static String mechanism(HttpServletRequest request) {
+		String authorization = request.getHeader(HttpHeaders.AUTHORIZATION);
+		if (authorization == null) {
+			return "none";
+		}
+		if (authorization.regionMatches(true, 0, "Basic ", 0, 6)) {
+			return "basic";
+		}
+		if (authorization.regionMatches(true, 0, "Bearer ", 0, 7)) {
+			// a JWS in compact form is three dot-separated parts
+			String token = authorization.substring(7).trim();
+			return (token.chars().filter(c -> c == '.').count() == 2) ? "jwt" : "opaque";
+		}
+		return "other";
+	}
+
+	/**
+	 * Headers have to go out with the first byte of the body, so they report what the
+	 * request has spent by the time the response commits
+	 */
+	private final class QueryStatisticsResponse extends OnCommittedResponseWrapper {
+		private final QueryStatistics statistics;
+		private boolean written;
+
+		QueryStatisticsResponse(HttpServletResponse response, QueryStatistics statistics) {
+			super(response);
+			this.statistics = statistics;
+		}
+
+		@Override
+		protected void onResponseCommitted() {
+			writeHeaders();
+		}
+
+		void writeHeaders() {
+			if (!writeHeaders || this.written || isCommitted()) {
+				return;
+			}
+			this.written = true;
+			setHeader(STATEMENTS_HEADER, String.valueOf(this.statistics.getStatements()));
+			setHeader(ROWS_HEADER, String.valueOf(this.statistics.getRows()));
+			setHeader(TIME_HEADER, String.format("%.3fms", this.statistics.getNanos() / 1_000_000d));
+		}
+	}
+}
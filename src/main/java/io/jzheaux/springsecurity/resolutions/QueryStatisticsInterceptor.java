@@ -0,0 +1,20 @@
+package io.jzheaux.springsecurity.resolutions;
+
+import org.hibernate.EmptyInterceptor;
+import org.hibernate.type.Type;
+
+import java.io.Serializable;
+
+/**
+ * Counts each entity Hibernate loads as a row read into the calling thread's {@link QueryStatistics}.
+ */
+public class QueryStatisticsInterceptor extends EmptyInterceptor {
+	@Override
+	public boolean onLoad(Object entity, Serializable id, Object[] state, String[] propertyNames, Type[] types) {
+		QueryStatistics statistics = QueryStatistics.current();
+		if (statistics != null) {
+			statistics.rows(1);
+		}
+		return false;
+	}
+}
@@ -0,0 +1,55 @@
+package io.jzheaux.springsecurity.resolutions;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+
+import java.util.List;
+
+/**
+ * Records each statement executed through a datasource-proxy {@code ProxyDataSource} into the
+ * calling thread's {@link QueryStatistics}.
+ *
+ * A JDBC batch counts as one statement since it is one round-trip. Rows are the update counts of
+ * writes; result sets are left unwrapped so that reading them stays at full speed, and rows read
+ * are instead counted by {@link QueryStatisticsInterceptor}.
+ */
+public class QueryStatisticsListener implements QueryExecutionListener {
+	private static final String START = QueryStatisticsListener.class.getName() + ".START";
+
+	@Override
+	public void beforeQuery(ExecutionInfo execution, List<QueryInfo> queries) {
+		if (QueryStatistics.current() != null) {
+			execution.addCustomValue(START, System.nanoTime());
+		}
+	}
+
+	@Override
+	public void afterQuery(ExecutionInfo execution, List<QueryInfo> queries) {
+		QueryStatistics statistics = QueryStatistics.current();
+		Long start = execution.getCustomValue(START, Long.class);
+		if (statistics == null || start == null) {
+			return;
+		}
+		statistics.statement(System.nanoTime() - start);
+		statistics.rows(updated(execution.getResult()));
+	}
+
+	private static long updated(Object result) {
+		if (result instanceof Integer || result instanceof Long) {
+			return ((Number) result).longValue();
+		}
+		long updated = 0;
+		if (result instanceof int[]) {
+			for (int count : (int[]) result) {
+				updated += Math.max(count, 0);
+			}
+		}
+		if (result instanceof long[]) {
+			for (long count : (long[]) result) {
+				updated += Math.max(count, 0);
+			}
+		}
+		return updated;
+	}
+}
@@ -1,12 +1,26 @@
 package io.jzheaux.springsecurity.resolutions;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import org.springframework.data.domain.Persistable;
+import org.springframework.util.Assert;
+import org.springframework.util.IdGenerator;
+
 import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.PostLoad;
+import javax.persistence.PostPersist;
+import javax.persistence.Table;
+import javax.persistence.Transient;
+import javax.persistence.Version;
 import java.util.UUID;
 
 @Entity
-public class Resolution {
+@Table(indexes = @Index(name = "resolution_owner_idx", columnList = "owner, id"))
+public class Resolution implements Persistable<UUID> {
+	private static volatile IdGenerator ids = new TimeOrderedIdGenerator();
+
 	@Id
 	private UUID id;
 
@@ -19,13 +33,36 @@ public class Resolution {
 	@Column(nullable=false)
 	private Boolean completed = false;
 
+	@Version
+	private Long version;
+
+	/**
+	 * Ids are assigned up front, so without this Spring Data would {@code merge}
+	 * each new row, costing a {@code SELECT} per insert and defeating JDBC batching
+	 */
+	@Transient
+	private boolean isNew;
+
 	public Resolution() {
 	}
 
 	public Resolution(String text, String owner) {
-		this.id = UUID.randomUUID();
+		this(ids.generateId(), text, owner);
+	}
+
+	public Resolution(UUID id, String text, String owner) {
+		this.id = id;
 		this.text = text;
 		this.owner = owner;
+		this.isNew = true;
+	}
+
+	/**
+	 * Use this {@link IdGenerator} for resolutions made with {@link #Resolution(String, String)}
+	 */
+	public static void setIdGenerator(IdGenerator ids) {
+		Assert.notNull(ids, "ids cannot be null");
+		Resolution.ids = ids;
 	}
 
 	public UUID getId() {
@@ -52,6 +89,10 @@ public class Resolution {
 		this.owner = owner;
 	}
 
+	public Long getVersion() {
+		return version;
+	}
+
 	public Boolean getCompleted() {
 		return completed;
 	}
@@ -59,4 +100,16 @@ public class Resolution {
 	public void setCompleted(Boolean completed) {
 		this.completed = completed;
 	}
+
+	@Override
+	@JsonIgnore
+	public boolean isNew() {
+		return isNew;
+	}
+
+	@PostLoad
+	@PostPersist
+	void markNotNew() {
+		this.isNew = false;
+	}
 }
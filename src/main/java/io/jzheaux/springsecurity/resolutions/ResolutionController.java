@@ -1,24 +1,58 @@
 package io.jzheaux.springsecurity.resolutions;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
 
+import javax.persistence.EntityManager;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 import javax.transaction.Transactional;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.security.Principal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @RestController
 public class ResolutionController {
+	static final int MAX_PAGE_SIZE = 100;
+	static final int BATCH_SIZE = 50;
+	static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+
 	private final ResolutionRepository resolutions;
+	private final EntityManager entityManager;
+	private final ObjectMapper mapper;
+	private final TransactionTemplate transactions;
 
-	public ResolutionController(ResolutionRepository resolutions) {
+	public ResolutionController(ResolutionRepository resolutions, EntityManager entityManager, ObjectMapper mapper,
+			PlatformTransactionManager transactionManager) {
 		this.resolutions = resolutions;
+		this.entityManager = entityManager;
+		this.mapper = mapper;
+		this.transactions = new TransactionTemplate(transactionManager);
 	}
 
 	@GetMapping("/resolutions")
@@ -26,6 +60,38 @@ public class ResolutionController {
 		return this.resolutions.findAll();
 	}
 
+	@GetMapping("/resolutions/page")
+	public ResolutionPage page(Principal principal,
+			@RequestParam(name="after", required=false) String after,
+			@RequestParam(name="size", defaultValue="20") int size) {
+		int bounded = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+		List<Resolution> content = findPage(principal, after, PageRequest.of(0, bounded + 1));
+		if (content.size() <= bounded) {
+			return new ResolutionPage(content, null);
+		}
+		content = content.subList(0, bounded);
+		UUID last = content.get(bounded - 1).getId();
+		return new ResolutionPage(content, ResolutionPage.encode(last));
+	}
+
+	@GetMapping(path="/resolutions/stream", produces=MediaType.APPLICATION_JSON_VALUE)
+	@Transactional
+	public void stream(Principal principal, HttpServletResponse response) throws IOException {
+		String owner = owner(principal);
+		response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+		try (Stream<Resolution> resolutions = this.resolutions.streamByOwner(owner);
+			JsonGenerator json = this.mapper.getFactory().createGenerator(response.getOutputStream())) {
+			json.writeStartArray();
+			for (Iterator<Resolution> it = resolutions.iterator(); it.hasNext(); ) {
+				Resolution resolution = it.next();
+				json.writeObject(resolution);
+				// keep the persistence context from growing with the result set
+				this.entityManager.detach(resolution);
+			}
+			json.writeEndArray();
+		}
+	}
+
 	@GetMapping("/resolution/{id}")
 	public Optional<Resolution> read(@PathVariable("id") UUID id) {
 		return this.resolutions.findById(id);
@@ -38,17 +104,140 @@ public class ResolutionController {
 		return this.resolutions.save(resolution);
 	}
 
+	@PostMapping(path="/resolutions", consumes=MediaType.APPLICATION_JSON_VALUE)
+	@Transactional
+	public Iterable<Resolution> makeAll(Principal principal, @RequestBody List<String> texts) {
+		return makeBatch(owner(principal), texts);
+	}
+
+	/**
+	 * Each batch of lines is committed in its own transaction and written back as soon as it is,
+	 * so neither the persistence context nor the response is held for the whole request.
+	 *
+	 * Every line in the response is a committed resolution; should a later batch fail, the
+	 * response ends early and the batches already written back stay in place.
+	 */
+	@PostMapping(path="/resolutions", consumes=APPLICATION_NDJSON_VALUE)
+	public void makeAll(Principal principal, HttpServletRequest request, HttpServletResponse response)
+			throws IOException {
+		String owner = owner(principal);
+		response.setContentType(APPLICATION_NDJSON_VALUE);
+		BufferedReader reader = request.getReader();
+		// not closed on failure, since that would commit the response ahead of the error
+		JsonGenerator json = this.mapper.getFactory().createGenerator(response.getOutputStream());
+		List<String> texts = new ArrayList<>(BATCH_SIZE);
+		for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+			if (line.trim().isEmpty()) {
+				continue;
+			}
+			texts.add(text(line));
+			if (texts.size() == BATCH_SIZE) {
+				write(json, this.transactions.execute(status -> makeBatch(owner, texts)));
+				texts.clear();
+			}
+		}
+		if (!texts.isEmpty()) {
+			write(json, this.transactions.execute(status -> makeBatch(owner, texts)));
+		}
+		json.close();
+	}
+
 	@PutMapping(path="/resolution/{id}/revise")
 	@Transactional
 	public Optional<Resolution> revise(@PathVariable("id") UUID id, @RequestBody String text) {
-		this.resolutions.revise(id, text);
+		if (this.resolutions.revise(id, text) == 0) {
+			return Optional.empty();
+		}
 		return read(id);
 	}
 
 	@PutMapping("/resolution/{id}/complete")
 	@Transactional
 	public Optional<Resolution> complete(@PathVariable("id") UUID id) {
-		this.resolutions.complete(id);
+		if (this.resolutions.complete(id) == 0) {
+			return Optional.empty();
+		}
 		return read(id);
 	}
+
+	@PutMapping("/resolutions/revise")
+	@Transactional
+	public List<Resolution> reviseAll(Principal principal, @RequestBody Map<UUID, String> texts) {
+		String owner = owner(principal);
+		List<UUID> ids = new ArrayList<>(texts.keySet());
+		Map<UUID, Resolution> revised = new HashMap<>();
+		if (!ids.isEmpty()) {
+			for (Resolution resolution : this.resolutions.findAllByOwnerAndIdIn(owner, ids)) {
+				resolution.setText(texts.get(resolution.getId()));
+				revised.put(resolution.getId(), resolution);
+			}
+		}
+		return ids.stream().map(revised::get).collect(Collectors.toList());
+	}
+
+	@PutMapping("/resolutions/complete")
+	@Transactional
+	public List<Resolution> completeAll(Principal principal, @RequestBody List<UUID> ids) {
+		String owner = owner(principal);
+		if (ids.isEmpty() || this.resolutions.completeAll(owner, ids) == 0) {
+			return ids.stream().map(id -> (Resolution) null).collect(Collectors.toList());
+		}
+		Map<UUID, Resolution> completed = new HashMap<>();
+		for (Resolution resolution : this.resolutions.findAllByOwnerAndIdIn(owner, ids)) {
+			completed.put(resolution.getId(), resolution);
+		}
+		return ids.stream().map(completed::get).collect(Collectors.toList());
+	}
+
+	private List<Resolution> makeBatch(String owner, List<String> texts) {
+		List<Resolution> made = new ArrayList<>(texts.size());
+		for (String text : texts) {
+			made.add(new Resolution(text, owner));
+		}
+		this.resolutions.saveAll(made);
+		return made;
+	}
+
+	private void write(JsonGenerator json, List<Resolution> resolutions) throws IOException {
+		for (Resolution resolution : resolutions) {
+			json.writeObject(resolution);
+			json.writeRaw('\n');
+		}
+		json.flush();
+		// the request's persistence context outlives each batch's transaction
+		this.entityManager.clear();
+	}
+
+	private String text(String line) {
+		try {
+			return this.mapper.readValue(line, String.class);
+		} catch (JsonProcessingException e) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Each line must be a JSON string", e);
+		}
+	}
+
+	private List<Resolution> findPage(Principal principal, String after, Pageable page) {
+		String owner = owner(principal);
+		return (after == null) ?
+				this.resolutions.findFirstPageByOwner(owner, page) :
+				this.resolutions.findPageByOwnerAfter(owner, decode(after), page);
+	}
+
+	/**
+	 * These endpoints only ever touch the caller's own rows, so there is nothing to do without a caller
+	 */
+	private static String owner(Principal principal) {
+		if (principal == null) {
+			throw new ResponseStatusException(HttpStatus.UNAUTHORIZED);
+		}
+		return principal.getName();
+	}
+
+	private static UUID decode(String token) {
+		try {
+			return ResolutionPage.decode(token);
+		} catch (IllegalArgumentException e) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid continuation token", e);
+		}
+	}
 }
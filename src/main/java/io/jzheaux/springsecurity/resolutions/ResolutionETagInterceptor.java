@@ -0,0 +1,72 @@
+package io.jzheaux.springsecurity.resolutions;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.nio.charset.StandardCharsets;
+import java.security.Principal;
+import java.util.Base64;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Answers conditional reads of resolutions from a version-only query, so an unchanged
+ * resolution or list is never loaded or serialized.
+ *
+ * This runs ahead of the controller, and so ahead of any method security on it. For that reason
+ * it only ever answers for a single resolution that the caller owns; anything else, including a
+ * request without a principal, goes on to the controller as usual.
+ *
+ * The list tag is taken over every row, just like {@link ResolutionController#read()} loads every
+ * row, so it changes whenever anything that list could show does, however it is later filtered.
+ * It is qualified by the caller so that two callers never share a tag for what may be two
+ * different bodies.
+ */
+@Component
+public class ResolutionETagInterceptor implements HandlerInterceptor {
+	private final ResolutionRepository resolutions;
+
+	public ResolutionETagInterceptor(ResolutionRepository resolutions) {
+		this.resolutions = resolutions;
+	}
+
+	@Override
+	public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+		if (!HttpMethod.GET.matches(request.getMethod())) {
+			return true;
+		}
+		// the body depends on who is asking, so shared caches must not hand it to anyone else
+		response.addHeader(HttpHeaders.VARY, HttpHeaders.AUTHORIZATION);
+		Principal principal = request.getUserPrincipal();
+		if (principal == null) {
+			return true;
+		}
+		Optional<String> etag = etag(request, principal.getName());
+		if (!etag.isPresent()) {
+			return true;
+		}
+		return !new ServletWebRequest(request, response).checkNotModified("\"" + etag.get() + "\"");
+	}
+
+	private Optional<String> etag(HttpServletRequest request, String owner) {
+		Map<?, ?> variables = (Map<?, ?>) request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+		Object id = (variables == null) ? null : variables.get("id");
+		if (id == null) {
+			String caller = Base64.getUrlEncoder().withoutPadding().encodeToString(owner.getBytes(StandardCharsets.UTF_8));
+			return Optional.of(caller + "." + this.resolutions.findCollectionVersion());
+		}
+		try {
+			return this.resolutions.findVersionByIdAndOwner(UUID.fromString(id.toString()), owner).map(String::valueOf);
+		} catch (IllegalArgumentException e) {
+			// leave malformed ids for the controller to reject
+			return Optional.empty();
+		}
+	}
+}
@@ -0,0 +1,40 @@
+package io.jzheaux.springsecurity.resolutions;
+
+import java.nio.ByteBuffer;
+import java.util.Base64;
+import java.util.List;
+import java.util.UUID;
+
+public class ResolutionPage {
+	private final List<Resolution> content;
+	private final String next;
+
+	public ResolutionPage(List<Resolution> content, String next) {
+		this.content = content;
+		this.next = next;
+	}
+
+	public List<Resolution> getContent() {
+		return content;
+	}
+
+	public String getNext() {
+		return next;
+	}
+
+	static String encode(UUID id) {
+		ByteBuffer buffer = ByteBuffer.allocate(16);
+		buffer.putLong(id.getMostSignificantBits());
+		buffer.putLong(id.getLeastSignificantBits());
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(buffer.array());
+	}
+
+	static UUID decode(String token) {
+		byte[] bytes = Base64.getUrlDecoder().decode(token);
+		if (bytes.length != 16) {
+			throw new IllegalArgumentException("Continuation token is malformed");
+		}
+		ByteBuffer buffer = ByteBuffer.wrap(bytes);
+		return new UUID(buffer.getLong(), buffer.getLong());
+	}
+}
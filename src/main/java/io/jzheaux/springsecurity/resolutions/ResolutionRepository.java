@@ -1,20 +1,64 @@
 package io.jzheaux.springsecurity.resolutions;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+
+/**
+ * ETags are built from {@link Resolution#getVersion()}, so every hand-written {@code UPDATE} here
+ * needs to be {@code VERSIONED}; otherwise clients keep getting 304s for rows that have since changed.
+ *
+ * Likewise, {@link #revise} and {@link #complete} check {@code If-Match} through
+ * {@link IfMatchEvaluationContextExtension}, and so need to keep their {@code version} predicate.
+ */
 @Repository
 public interface ResolutionRepository extends CrudRepository<Resolution, UUID> {
+	@Query("SELECT r FROM Resolution r WHERE r.owner = :owner ORDER BY r.id")
+	List<Resolution> findFirstPageByOwner(String owner, Pageable page);
+
+	@Query("SELECT r FROM Resolution r WHERE r.owner = :owner AND r.id > :after ORDER BY r.id")
+	List<Resolution> findPageByOwnerAfter(String owner, UUID after, Pageable page);
+
+	@QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "100"))
+	@Query("SELECT r FROM Resolution r WHERE r.owner = :owner")
+	Stream<Resolution> streamByOwner(String owner);
+
+	@Query("SELECT r.version FROM Resolution r WHERE r.id = :id AND r.owner = :owner")
+	Optional<Long> findVersionByIdAndOwner(UUID id, String owner);
+
+	/**
+	 * Rows are only ever inserted or updated, and each of those adds exactly one to this
+	 * number, so it changes whenever the result of {@link #findAll()} does
+	 */
+	@Query("SELECT COUNT(r) + COALESCE(SUM(r.version), 0) FROM Resolution r")
+	long findCollectionVersion();
+
+	@Modifying
+	@Query("UPDATE VERSIONED Resolution SET text = :text " +
+			"WHERE id = :id AND (:#{ifMatchAny} = TRUE OR version IN :#{ifMatch})")
+	int revise(UUID id, String text);
+
 	@Modifying
-	@Query("UPDATE Resolution SET text = :text WHERE id = :id")
-	void revise(UUID id, String text);
+	@Query("UPDATE VERSIONED Resolution SET completed = 1 " +
+			"WHERE id = :id AND (:#{ifMatchAny} = TRUE OR version IN :#{ifMatch})")
+	int complete(UUID id);
+
+	@Query("SELECT r FROM Resolution r WHERE r.owner = :owner AND r.id IN :ids")
+	List<Resolution> findAllByOwnerAndIdIn(String owner, Collection<UUID> ids);
 
 	@Modifying
-	@Query("UPDATE Resolution SET completed = 1 WHERE id = :id")
-	void complete(UUID id);
+	@Query("UPDATE VERSIONED Resolution SET completed = 1 WHERE owner = :owner AND id IN :ids")
+	int completeAll(String owner, Collection<UUID> ids);
 }
@@ -0,0 +1,48 @@
+package io.jzheaux.springsecurity.resolutions;
+
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpResponse;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+import java.util.Optional;
+
+/**
+ * Maps what a {@link ResolutionController} method returns as an {@link Optional} onto HTTP: a
+ * resolution goes out with its version as a strong ETag, and an empty result is a 404, or a 412
+ * when the request was conditioned on {@code If-Match}.
+ *
+ * This lives outside the controller so that its method signatures stay as they are.
+ */
+@ControllerAdvice(assignableTypes = ResolutionController.class)
+public class ResolutionResponseAdvice implements ResponseBodyAdvice<Object> {
+	@Override
+	public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+		return Optional.class.equals(returnType.getParameterType());
+	}
+
+	@Override
+	public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType contentType,
+			Class<? extends HttpMessageConverter<?>> converterType,
+			ServerHttpRequest request, ServerHttpResponse response) {
+		Object resolution = (body instanceof Optional) ? ((Optional<?>) body).orElse(null) : body;
+		if (resolution == null) {
+			// a missing resolution fails If-Match just like a stale one does
+			response.setStatusCode(request.getHeaders().containsKey(HttpHeaders.IF_MATCH) ?
+					HttpStatus.PRECONDITION_FAILED : HttpStatus.NOT_FOUND);
+			return null;
+		}
+		if (resolution instanceof Resolution && response instanceof ServletServerHttpResponse) {
+			// replaces, rather than adds to, any ETag already sent for the version read up front
+			String etag = "\"" + ((Resolution) resolution).getVersion() + "\"";
+			((ServletServerHttpResponse) response).getServletResponse().setHeader(HttpHeaders.ETAG, etag);
+		}
+		return body;
+	}
+}
@@ -3,9 +3,21 @@ package io.jzheaux.springsecurity.resolutions;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.autoconfigure.security.servlet.SecurityAutoConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 @SpringBootApplication(exclude = SecurityAutoConfiguration.class)
 public class ResolutionsApplication {
+	@Bean
+	WebMvcConfigurer resolutionETags(ResolutionETagInterceptor etags) {
+		return new WebMvcConfigurer() {
+			@Override
+			public void addInterceptors(InterceptorRegistry registry) {
+				registry.addInterceptor(etags).addPathPatterns("/resolutions", "/resolution/*");
+			}
+		};
+	}
 
 	public static void main(String[] args) {
 		SpringApplication.run(ResolutionsApplication.class, args);
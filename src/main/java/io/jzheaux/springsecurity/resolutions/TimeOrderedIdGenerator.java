@@ -0,0 +1,68 @@
+package io.jzheaux.springsecurity.resolutions;
+
+import org.springframework.util.IdGenerator;
+
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * An {@link IdGenerator} for UUIDv7-style ids: a 48-bit Unix millisecond timestamp,
+ * followed by a 12-bit sequence and 62 random bits.
+ *
+ * The random bits come from a {@code SHA1PRNG} {@link SecureRandom} per thread. That algorithm keeps
+ * its state in the instance and only draws on the platform's entropy source to seed itself, once per
+ * thread, so ids stay unguessable without concurrent creates contending for a shared source the way
+ * the default {@code NativePRNG} does.
+ *
+ * Ids are strictly increasing per generator, even within the same millisecond, so new rows
+ * land at the right-hand edge of the primary key index instead of at random pages.
+ */
+public class TimeOrderedIdGenerator implements IdGenerator {
+	private static final int SEQUENCE_BITS = 12;
+
+	private static final ThreadLocal<SecureRandom> random = ThreadLocal.withInitial(TimeOrderedIdGenerator::secureRandom);
+
+	private final AtomicLong last = new AtomicLong();
+	private final LongSupplier clock;
+
+	public TimeOrderedIdGenerator() {
+		this(System::currentTimeMillis);
+	}
+
+	TimeOrderedIdGenerator(LongSupplier clock) {
+		this.clock = clock;
+	}
+
+	@Override
+	public UUID generateId() {
+		long next = nextTimestampAndSequence();
+		long timestamp = next >>> SEQUENCE_BITS;
+		long sequence = next & ((1 << SEQUENCE_BITS) - 1);
+		long mostSignificant = (timestamp << 16) | 0x7000L | sequence;
+		long leastSignificant = (random.get().nextLong() >>> 2) | 0x8000000000000000L;
+		return new UUID(mostSignificant, leastSignificant);
+	}
+
+	private static SecureRandom secureRandom() {
+		try {
+			return SecureRandom.getInstance("SHA1PRNG");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA1PRNG is not available on this platform", e);
+		}
+	}
+
+	private long nextTimestampAndSequence() {
+		long now = this.clock.getAsLong() << SEQUENCE_BITS;
+		while (true) {
+			long previous = this.last.get();
+			// when the sequence overflows, this borrows from the next millisecond
+			long next = Math.max(now, previous + 1);
+			if (this.last.compareAndSet(previous, next)) {
+				return next;
+			}
+		}
+	}
+}
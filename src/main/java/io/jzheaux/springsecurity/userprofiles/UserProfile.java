@@ -0,0 +1,62 @@
+package io.jzheaux.springsecurity.userprofiles;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.PrePersist;
+import javax.persistence.PreUpdate;
+import javax.persistence.Version;
+import java.time.Instant;
+
+@Entity
+public class UserProfile {
+	@Id
+	private String username;
+
+	@Column(name="full_name")
+	private String fullName;
+
+	@Version
+	private Long version;
+
+	@Column(name="last_modified", nullable=false)
+	private Instant lastModified;
+
+	public UserProfile() {
+	}
+
+	public UserProfile(String username, String fullName) {
+		this.username = username;
+		this.fullName = fullName;
+	}
+
+	public String getUsername() {
+		return username;
+	}
+
+	public void setUsername(String username) {
+		this.username = username;
+	}
+
+	public String getFullName() {
+		return fullName;
+	}
+
+	public void setFullName(String fullName) {
+		this.fullName = fullName;
+	}
+
+	public Long getVersion() {
+		return version;
+	}
+
+	public Instant getLastModified() {
+		return lastModified;
+	}
+
+	@PrePersist
+	@PreUpdate
+	void touch() {
+		this.lastModified = Instant.now();
+	}
+}
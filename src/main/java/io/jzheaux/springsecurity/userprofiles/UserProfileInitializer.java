@@ -0,0 +1,21 @@
+package io.jzheaux.springsecurity.userprofiles;
+
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.stereotype.Component;
+
+@Component
+public class UserProfileInitializer implements SmartInitializingSingleton {
+	private final UserProfileRepository profiles;
+
+	public UserProfileInitializer(UserProfileRepository profiles) {
+		this.profiles = profiles;
+	}
+
+	@Override
+	public void afterSingletonsInstantiated() {
+		this.profiles.save(new UserProfile("user", "User Userson"));
+		this.profiles.save(new UserProfile("hasread", "Has Read"));
+		this.profiles.save(new UserProfile("haswrite", "Has Write"));
+		this.profiles.save(new UserProfile("admin", "Admin Adminson"));
+	}
+}
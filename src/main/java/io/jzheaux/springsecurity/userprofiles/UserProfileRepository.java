@@ -0,0 +1,8 @@
+package io.jzheaux.springsecurity.userprofiles;
+
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface UserProfileRepository extends CrudRepository<UserProfile, String> {
+}
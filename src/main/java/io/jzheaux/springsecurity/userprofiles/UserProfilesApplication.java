@@ -1,13 +1,25 @@
 package io.jzheaux.springsecurity.userprofiles;
 
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.web.embedded.tomcat.TomcatConnectorCustomizer;
 import org.springframework.context.annotation.Bean;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @SpringBootApplication
@@ -19,20 +31,55 @@ public class UserProfilesApplication {
 
 	@RestController
 	static class UserController {
+		private final LoadingCache<String, Optional<UserProfile>> profiles;
+
+		UserController(UserProfileRepository profiles) {
+			this.profiles = Caffeine.newBuilder()
+					.maximumSize(100_000)
+					.expireAfterWrite(Duration.ofMinutes(10))
+					.build(new CacheLoader<String, Optional<UserProfile>>() {
+						@Override
+						public Optional<UserProfile> load(String username) {
+							return profiles.findById(username);
+						}
+
+						@Override
+						public Map<String, Optional<UserProfile>> loadAll(Iterable<? extends String> usernames) {
+							Map<String, Optional<UserProfile>> loaded = new HashMap<>();
+							for (String username : usernames) {
+								loaded.put(username, Optional.empty());
+							}
+							for (UserProfile profile : profiles.findAllById(loaded.keySet())) {
+								loaded.put(profile.getUsername(), Optional.of(profile));
+							}
+							return loaded;
+						}
+					});
+		}
+
 		@GetMapping("/user/{username}/fullName")
-		Optional<String> read(@PathVariable("username") String username) {
-			switch(username) {
-				case "user":
-					return Optional.of("User Userson");
-				case "hasread":
-					return Optional.of("Has Read");
-				case "haswrite":
-					return Optional.of("Has Write");
-				case "admin":
-					return Optional.of("Admin Adminson");
-				default:
-					return Optional.empty();
+		ResponseEntity<String> read(@PathVariable("username") String username, WebRequest request) {
+			Optional<UserProfile> profile = this.profiles.get(username);
+			if (!profile.isPresent()) {
+				return ResponseEntity.notFound().build();
 			}
+			UserProfile found = profile.get();
+			String etag = "\"" + found.getVersion() + "\"";
+			if (request.checkNotModified(etag, found.getLastModified().toEpochMilli())) {
+				return null;
+			}
+			return ResponseEntity.ok()
+					.eTag(etag)
+					.lastModified(found.getLastModified())
+					.body(found.getFullName());
+		}
+
+		@PostMapping("/users/fullNames")
+		Map<String, String> read(@RequestBody List<String> usernames) {
+			Map<String, String> fullNames = new LinkedHashMap<>();
+			this.profiles.getAll(usernames).forEach((username, profile) ->
+					profile.ifPresent(found -> fullNames.put(username, found.getFullName())));
+			return fullNames;
 		}
 	}
 
@@ -0,0 +1,343 @@
+package io.jzheaux.springsecurity.resolutions;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.MockMvcPrint;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+
+import java.security.Principal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@RunWith(SpringRunner.class)
+@AutoConfigureMockMvc(print=MockMvcPrint.NONE)
+@SpringBootTest
+public class ResolutionControllerTests {
+	@Autowired
+	MockMvc mvc;
+
+	@Autowired
+	ResolutionRepository resolutions;
+
+	@Autowired
+	ObjectMapper mapper;
+
+	String owner;
+
+	Resolution mine;
+
+	Resolution theirs;
+
+	@Before
+	public void setup() {
+		// a fresh owner per test, since the database is shared across tests
+		this.owner = "owner-" + UUID.randomUUID();
+		this.mine = this.resolutions.save(new Resolution("Mine", this.owner));
+		this.theirs = this.resolutions.save(new Resolution("Theirs", "other-" + UUID.randomUUID()));
+	}
+
+	@Test
+	public void pageWhenPrincipalThenOnlyOwnRows() throws Exception {
+		JsonNode page = json(get("/resolutions/page").principal(principal(this.owner)));
+		assertEquals(ids(this.mine), ids(page.get("content")));
+		assertNull(page.get("next").textValue());
+	}
+
+	@Test
+	public void pageWhenAfterThenContinuesFromToken() throws Exception {
+		Resolution next = this.resolutions.save(new Resolution("Mine too", this.owner));
+		JsonNode first = json(get("/resolutions/page").param("size", "1").principal(principal(this.owner)));
+		assertEquals(ids(this.mine), ids(first.get("content")));
+		JsonNode second = json(get("/resolutions/page").param("size", "1")
+				.param("after", first.get("next").textValue()).principal(principal(this.owner)));
+		assertEquals(ids(next), ids(second.get("content")));
+		assertNull(second.get("next").textValue());
+	}
+
+	@Test
+	public void pageWhenNoPrincipalThenUnauthorized() throws Exception {
+		this.mvc.perform(get("/resolutions/page")).andExpect(status().isUnauthorized());
+	}
+
+	@Test
+	public void streamWhenPrincipalThenOnlyOwnRows() throws Exception {
+		JsonNode stream = json(get("/resolutions/stream").principal(principal(this.owner)));
+		assertEquals(ids(this.mine), ids(stream));
+	}
+
+	@Test
+	public void streamWhenNoPrincipalThenUnauthorized() throws Exception {
+		this.mvc.perform(get("/resolutions/stream")).andExpect(status().isUnauthorized());
+	}
+
+	@Test
+	public void readWhenUnchangedThenNotModified() throws Exception {
+		String etag = this.mvc.perform(get("/resolution/" + this.mine.getId()).principal(principal(this.owner)))
+				.andExpect(header().string(HttpHeaders.VARY, HttpHeaders.AUTHORIZATION))
+				.andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+		this.mvc.perform(get("/resolution/" + this.mine.getId()).principal(principal(this.owner))
+				.header(HttpHeaders.IF_NONE_MATCH, etag))
+				.andExpect(status().isNotModified());
+	}
+
+	@Test
+	public void readWhenRevisedThenETagChanges() throws Exception {
+		String etag = this.mvc.perform(get("/resolution/" + this.mine.getId()).principal(principal(this.owner)))
+				.andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+		this.mvc.perform(put("/resolution/" + this.mine.getId() + "/revise").content("Revised"));
+		this.mvc.perform(get("/resolution/" + this.mine.getId()).principal(principal(this.owner))
+				.header(HttpHeaders.IF_NONE_MATCH, etag))
+				.andExpect(status().isOk());
+	}
+
+	@Test
+	public void readWhenAnotherOwnersRowThenNotAnsweredAheadOfController() throws Exception {
+		String etag = "\"" + this.theirs.getVersion() + "\"";
+		this.mvc.perform(get("/resolution/" + this.theirs.getId()).principal(principal(this.owner))
+				.header(HttpHeaders.IF_NONE_MATCH, etag))
+				.andExpect(status().isOk());
+	}
+
+	@Test
+	public void readWhenListAndOwnRowCompletedThenETagChanges() throws Exception {
+		String etag = this.mvc.perform(get("/resolutions").principal(principal(this.owner)))
+				.andExpect(header().string(HttpHeaders.VARY, HttpHeaders.AUTHORIZATION))
+				.andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+		this.mvc.perform(put("/resolution/" + this.mine.getId() + "/complete"));
+		this.mvc.perform(get("/resolutions").principal(principal(this.owner))
+				.header(HttpHeaders.IF_NONE_MATCH, etag))
+				.andExpect(status().isOk());
+	}
+
+	@Test
+	public void readWhenListAndAnotherOwnersRowChangesThenETagChanges() throws Exception {
+		String etag = this.mvc.perform(get("/resolutions").principal(principal(this.owner)))
+				.andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+		this.mvc.perform(put("/resolution/" + this.theirs.getId() + "/revise").content("Revised"));
+		this.mvc.perform(get("/resolutions").principal(principal(this.owner))
+				.header(HttpHeaders.IF_NONE_MATCH, etag))
+				.andExpect(status().isOk());
+		etag = this.mvc.perform(get("/resolutions").principal(principal(this.owner)))
+				.andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+		this.resolutions.save(new Resolution("Theirs too", this.theirs.getOwner()));
+		this.mvc.perform(get("/resolutions").principal(principal(this.owner))
+				.header(HttpHeaders.IF_NONE_MATCH, etag))
+				.andExpect(status().isOk());
+	}
+
+	@Test
+	public void readWhenListAndAnotherCallersETagThenNotModifiedIsNotAnswered() throws Exception {
+		String etag = this.mvc.perform(get("/resolutions").principal(principal(this.owner)))
+				.andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+		this.mvc.perform(get("/resolutions").principal(principal(this.theirs.getOwner()))
+				.header(HttpHeaders.IF_NONE_MATCH, etag))
+				.andExpect(status().isOk());
+	}
+
+	@Test
+	public void readWhenQueryStatisticsHeadersNotEnabledThenNoneSent() throws Exception {
+		this.mvc.perform(get("/resolution/" + this.mine.getId()))
+				.andExpect(header().doesNotExist(QueryStatisticsFilter.STATEMENTS_HEADER));
+	}
+
+	@Test
+	public void readWhenMissingThenNotFound() throws Exception {
+		this.mvc.perform(get("/resolution/" + UUID.randomUUID())).andExpect(status().isNotFound());
+	}
+
+	@Test
+	public void reviseWhenMissingThenNotFound() throws Exception {
+		this.mvc.perform(put("/resolution/" + UUID.randomUUID() + "/revise").content("text"))
+				.andExpect(status().isNotFound());
+	}
+
+	@Test
+	public void completeWhenMissingThenNotFound() throws Exception {
+		this.mvc.perform(put("/resolution/" + UUID.randomUUID() + "/complete"))
+				.andExpect(status().isNotFound());
+	}
+
+	@Test
+	public void reviseWhenIfMatchCurrentThenRevisedWithNewETag() throws Exception {
+		this.mvc.perform(put("/resolution/" + this.mine.getId() + "/revise").content("Revised")
+				.header(HttpHeaders.IF_MATCH, "\"" + this.mine.getVersion() + "\""))
+				.andExpect(status().isOk())
+				.andExpect(header().string(HttpHeaders.ETAG, "\"" + (this.mine.getVersion() + 1) + "\""));
+		assertEquals("Revised", this.resolutions.findById(this.mine.getId()).get().getText());
+	}
+
+	@Test
+	public void reviseWhenIfMatchStaleThenPreconditionFailed() throws Exception {
+		this.mvc.perform(put("/resolution/" + this.mine.getId() + "/revise").content("Revised"));
+		this.mvc.perform(put("/resolution/" + this.mine.getId() + "/revise").content("Stale")
+				.header(HttpHeaders.IF_MATCH, "\"" + this.mine.getVersion() + "\""))
+				.andExpect(status().isPreconditionFailed());
+		assertEquals("Revised", this.resolutions.findById(this.mine.getId()).get().getText());
+	}
+
+	@Test
+	public void reviseWhenIfMatchWeakThenPreconditionFailed() throws Exception {
+		this.mvc.perform(put("/resolution/" + this.mine.getId() + "/revise").content("Revised")
+				.header(HttpHeaders.IF_MATCH, "W/\"" + this.mine.getVersion() + "\""))
+				.andExpect(status().isPreconditionFailed());
+		assertEquals("Mine", this.resolutions.findById(this.mine.getId()).get().getText());
+	}
+
+	@Test
+	public void reviseWhenIfMatchListHasCurrentThenRevised() throws Exception {
+		long current = this.mine.getVersion();
+		this.mvc.perform(put("/resolution/" + this.mine.getId() + "/revise").content("Revised")
+				.header(HttpHeaders.IF_MATCH, "W/\"" + current + "\", \"" + (current + 5) + "\", \"" + current + "\""))
+				.andExpect(status().isOk());
+		assertEquals("Revised", this.resolutions.findById(this.mine.getId()).get().getText());
+	}
+
+	@Test
+	public void reviseWhenIfMatchListAllStaleThenPreconditionFailed() throws Exception {
+		long current = this.mine.getVersion();
+		this.mvc.perform(put("/resolution/" + this.mine.getId() + "/revise").content("Revised")
+				.header(HttpHeaders.IF_MATCH, "\"" + (current + 1) + "\", \"" + (current + 2) + "\""))
+				.andExpect(status().isPreconditionFailed());
+		assertEquals("Mine", this.resolutions.findById(this.mine.getId()).get().getText());
+	}
+
+	@Test
+	public void reviseWhenIfMatchAnyThenRevised() throws Exception {
+		this.mvc.perform(put("/resolution/" + this.mine.getId() + "/revise").content("Revised")
+				.header(HttpHeaders.IF_MATCH, "*"))
+				.andExpect(status().isOk());
+		assertEquals("Revised", this.resolutions.findById(this.mine.getId()).get().getText());
+	}
+
+	@Test
+	public void reviseWhenIfMatchAndMissingThenPreconditionFailed() throws Exception {
+		this.mvc.perform(put("/resolution/" + UUID.randomUUID() + "/revise").content("Revised")
+				.header(HttpHeaders.IF_MATCH, "*"))
+				.andExpect(status().isPreconditionFailed());
+		this.mvc.perform(put("/resolution/" + UUID.randomUUID() + "/revise").content("Revised")
+				.header(HttpHeaders.IF_MATCH, "\"0\""))
+				.andExpect(status().isPreconditionFailed());
+	}
+
+	@Test
+	public void completeWhenIfMatchStaleThenPreconditionFailed() throws Exception {
+		this.mvc.perform(put("/resolution/" + this.mine.getId() + "/complete")
+				.header(HttpHeaders.IF_MATCH, "\"" + (this.mine.getVersion() + 1) + "\""))
+				.andExpect(status().isPreconditionFailed());
+		assertFalse(this.resolutions.findById(this.mine.getId()).get().getCompleted());
+		this.mvc.perform(put("/resolution/" + this.mine.getId() + "/complete")
+				.header(HttpHeaders.IF_MATCH, "\"" + this.mine.getVersion() + "\""))
+				.andExpect(status().isOk());
+		assertTrue(this.resolutions.findById(this.mine.getId()).get().getCompleted());
+	}
+
+	@Test
+	public void makeAllWhenJsonThenOwnedByPrincipal() throws Exception {
+		JsonNode made = json(post("/resolutions").principal(principal(this.owner))
+				.contentType(MediaType.APPLICATION_JSON).content("[\"One\", \"Two\"]"));
+		assertEquals(2, made.size());
+		for (JsonNode resolution : made) {
+			assertEquals(this.owner, resolution.get("owner").textValue());
+		}
+	}
+
+	@Test
+	public void makeAllWhenNdjsonThenOneCommittedResultPerLine() throws Exception {
+		StringBuilder lines = new StringBuilder();
+		int count = ResolutionController.BATCH_SIZE * 2 + 1;
+		for (int i = 0; i < count; i++) {
+			lines.append("\"Line ").append(i).append("\"\n\n");
+		}
+		String body = this.mvc.perform(post("/resolutions").principal(principal(this.owner))
+				.contentType(ResolutionController.APPLICATION_NDJSON_VALUE).content(lines.toString()))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString();
+		String[] made = body.split("\n");
+		assertEquals(count, made.length);
+		assertEquals("Line 0", this.mapper.readTree(made[0]).get("text").textValue());
+		assertEquals(this.owner, this.mapper.readTree(made[count - 1]).get("owner").textValue());
+		assertEquals(count + 1, this.resolutions.findFirstPageByOwner(this.owner, PageRequest.of(0, count * 2)).size());
+	}
+
+	@Test
+	public void makeAllWhenNdjsonLineIsNotAStringThenBadRequest() throws Exception {
+		this.mvc.perform(post("/resolutions").principal(principal(this.owner))
+				.contentType(ResolutionController.APPLICATION_NDJSON_VALUE).content("\"One\"\n{"))
+				.andExpect(status().isBadRequest());
+		assertEquals(1, this.resolutions.findFirstPageByOwner(this.owner, PageRequest.of(0, 10)).size());
+	}
+
+	@Test
+	public void makeAllWhenNoPrincipalThenUnauthorized() throws Exception {
+		this.mvc.perform(post("/resolutions").contentType(MediaType.APPLICATION_JSON).content("[\"One\"]"))
+				.andExpect(status().isUnauthorized());
+	}
+
+	@Test
+	public void reviseAllWhenAnotherOwnersRowThenLeavesItAlone() throws Exception {
+		String texts = "{\"" + this.mine.getId() + "\": \"Revised\", \"" + this.theirs.getId() + "\": \"Revised\"}";
+		JsonNode revised = json(put("/resolutions/revise").principal(principal(this.owner))
+				.contentType(MediaType.APPLICATION_JSON).content(texts));
+		assertEquals("Revised", revised.get(0).get("text").textValue());
+		assertTrue(revised.get(1).isNull());
+		assertEquals("Theirs", this.resolutions.findById(this.theirs.getId()).get().getText());
+	}
+
+	@Test
+	public void completeAllWhenAnotherOwnersRowThenLeavesItAlone() throws Exception {
+		String ids = "[\"" + this.mine.getId() + "\", \"" + this.theirs.getId() + "\"]";
+		JsonNode completed = json(put("/resolutions/complete").principal(principal(this.owner))
+				.contentType(MediaType.APPLICATION_JSON).content(ids));
+		assertTrue(completed.get(0).get("completed").booleanValue());
+		assertTrue(completed.get(1).isNull());
+		assertFalse(this.resolutions.findById(this.theirs.getId()).get().getCompleted());
+	}
+
+	private JsonNode json(RequestBuilder request) throws Exception {
+		String body = this.mvc.perform(request).andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString();
+		return this.mapper.readTree(body);
+	}
+
+	private static List<String> ids(Resolution... resolutions) {
+		List<String> ids = new ArrayList<>();
+		for (Resolution resolution : resolutions) {
+			ids.add(resolution.getId().toString());
+		}
+		return ids;
+	}
+
+	private static List<String> ids(JsonNode resolutions) {
+		List<String> ids = new ArrayList<>();
+		for (JsonNode resolution : resolutions) {
+			ids.add(resolution.get("id").textValue());
+		}
+		return ids;
+	}
+
+	private static Principal principal(String name) {
+		return () -> name;
+	}
+}
@@ -0,0 +1,174 @@
+package io.jzheaux.springsecurity.resolutions;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.MockMvcPrint;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+
+import java.util.UUID;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+
+/**
+ * Security isn't configured until Module 1, so requests that need a caller set their principal directly
+ */
+@RunWith(SpringRunner.class)
+@AutoConfigureMockMvc(print=MockMvcPrint.NONE)
+@SpringBootTest(properties="resolutions.query-statistics.headers=true")
+public class ResolutionStatementCountTests {
+	@Autowired
+	MockMvc mvc;
+
+	@Autowired
+	ResolutionRepository resolutions;
+
+	@Autowired
+	MeterRegistry meters;
+
+	UUID id;
+
+	@TestConfiguration
+	static class Meters {
+		@Bean
+		MeterRegistry meterRegistry() {
+			return new SimpleMeterRegistry();
+		}
+	}
+
+	@Before
+	public void setup() {
+		this.id = this.resolutions.save(new Resolution("Count my statements", "user")).getId();
+	}
+
+	@Test
+	public void readWhenListThenVersionQueryAndSelect() throws Exception {
+		assertStatements(2, get("/resolutions").principal(() -> "user"));
+	}
+
+	@Test
+	public void readWhenListUnchangedThenVersionQueryOnly() throws Exception {
+		String etag = this.mvc.perform(get("/resolutions").principal(() -> "user"))
+				.andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+		assertStatements(1, get("/resolutions").principal(() -> "user").header(HttpHeaders.IF_NONE_MATCH, etag));
+	}
+
+	@Test
+	public void readWhenNoPrincipalThenSelectOnly() throws Exception {
+		assertStatements(1, get("/resolutions"));
+	}
+
+	@Test
+	public void readWhenByIdThenVersionQueryAndSelect() throws Exception {
+		assertStatements(2, get("/resolution/" + this.id).principal(() -> "user"));
+	}
+
+	@Test
+	public void readWhenByIdUnchangedThenVersionQueryOnly() throws Exception {
+		String etag = this.mvc.perform(get("/resolution/" + this.id).principal(() -> "user"))
+				.andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+		assertStatements(1, get("/resolution/" + this.id).principal(() -> "user").header(HttpHeaders.IF_NONE_MATCH, etag));
+	}
+
+	@Test
+	public void pageWhenFirstPageThenOneSelect() throws Exception {
+		assertStatements(1, get("/resolutions/page").principal(() -> "user"));
+	}
+
+	@Test
+	public void makeWhenNewThenInsertOnly() throws Exception {
+		assertStatements(1, post("/resolution").content("text"));
+	}
+
+	@Test
+	public void reviseWhenFoundThenUpdateAndSelect() throws Exception {
+		assertStatements(2, put("/resolution/" + this.id + "/revise").content("text"));
+	}
+
+	@Test
+	public void reviseWhenMissingThenUpdateOnly() throws Exception {
+		MockHttpServletResponse response = this.mvc.perform(
+				put("/resolution/" + UUID.randomUUID() + "/revise").content("text"))
+				.andReturn().getResponse();
+		assertEquals(404, response.getStatus());
+		assertEquals("1", response.getHeader(QueryStatisticsFilter.STATEMENTS_HEADER));
+	}
+
+	@Test
+	public void completeWhenFoundThenUpdateAndSelect() throws Exception {
+		assertStatements(2, put("/resolution/" + this.id + "/complete"));
+	}
+
+	@Test
+	public void pageWhenAfterThenOneSelect() throws Exception {
+		assertStatements(1, get("/resolutions/page").principal(() -> "user")
+				.param("after", ResolutionPage.encode(this.id)));
+	}
+
+	@Test
+	public void streamWhenPrincipalThenOneSelect() throws Exception {
+		assertStatements(1, get("/resolutions/stream").principal(() -> "user"));
+	}
+
+	@Test
+	public void makeAllWhenSeveralThenOneBatchedInsert() throws Exception {
+		assertStatements(1, post("/resolutions").principal(() -> "user")
+				.contentType(MediaType.APPLICATION_JSON).content("[\"One\", \"Two\", \"Three\"]"));
+	}
+
+	@Test
+	public void completeAllWhenSeveralThenUpdateAndSelect() throws Exception {
+		UUID other = this.resolutions.save(new Resolution("Count my statements too", "user")).getId();
+		assertStatements(2, put("/resolutions/complete").principal(() -> "user")
+				.contentType(MediaType.APPLICATION_JSON).content("[\"" + this.id + "\", \"" + other + "\"]"));
+	}
+
+	@Test
+	public void reviseWhenIfMatchCurrentThenUpdateAndSelect() throws Exception {
+		assertStatements(2, put("/resolution/" + this.id + "/revise").content("text")
+				.header(HttpHeaders.IF_MATCH, "\"0\""));
+	}
+
+	@Test
+	public void reviseWhenIfMatchStaleThenUpdateOnly() throws Exception {
+		MockHttpServletResponse response = this.mvc.perform(put("/resolution/" + this.id + "/revise").content("text")
+				.header(HttpHeaders.IF_MATCH, "\"1\""))
+				.andReturn().getResponse();
+		assertEquals(412, response.getStatus());
+		assertEquals("1", response.getHeader(QueryStatisticsFilter.STATEMENTS_HEADER));
+	}
+
+	@Test
+	public void readWhenByIdThenRowReadAndMetersRecorded() throws Exception {
+		MockHttpServletResponse response = this.mvc.perform(get("/resolution/" + this.id)).andReturn().getResponse();
+		assertEquals("1", response.getHeader(QueryStatisticsFilter.ROWS_HEADER));
+		DistributionSummary statements = this.meters.find("resolutions.sql.statements")
+				.tags("method", "GET", "uri", "/resolution/{id}", "auth", "none").summary();
+		assertNotNull(statements);
+		assertTrue(statements.count() > 0);
+	}
+
+	private void assertStatements(long expected, RequestBuilder request) throws Exception {
+		MockHttpServletResponse response = this.mvc.perform(request).andReturn().getResponse();
+		assertTrue("request failed with " + response.getStatus(), response.getStatus() < 400);
+		assertEquals(String.valueOf(expected), response.getHeader(QueryStatisticsFilter.STATEMENTS_HEADER));
+	}
+}
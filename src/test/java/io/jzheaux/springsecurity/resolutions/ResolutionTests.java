@@ -0,0 +1,28 @@
+package io.jzheaux.springsecurity.resolutions;
+
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.util.SimpleIdGenerator;
+
+import java.util.UUID;
+
+import static org.junit.Assert.assertEquals;
+
+public class ResolutionTests {
+	@After
+	public void cleanup() {
+		Resolution.setIdGenerator(new TimeOrderedIdGenerator());
+	}
+
+	@Test
+	public void constructWhenIdGeneratorSetThenUsesIt() {
+		Resolution.setIdGenerator(new SimpleIdGenerator());
+		assertEquals(new UUID(0, 1), new Resolution("text", "owner").getId());
+		assertEquals(new UUID(0, 2), new Resolution("text", "owner").getId());
+	}
+
+	@Test
+	public void constructWhenDefaultThenTimeOrdered() {
+		assertEquals(7, new Resolution("text", "owner").getId().version());
+	}
+}
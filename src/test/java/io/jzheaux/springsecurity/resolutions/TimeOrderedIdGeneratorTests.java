@@ -0,0 +1,40 @@
+package io.jzheaux.springsecurity.resolutions;
+
+import org.junit.Test;
+
+import java.util.UUID;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TimeOrderedIdGeneratorTests {
+	@Test
+	public void generateIdWhenCalledThenVersion7WithTimestampPrefix() {
+		TimeOrderedIdGenerator ids = new TimeOrderedIdGenerator(() -> 0x0123456789ABL);
+		UUID id = ids.generateId();
+		assertEquals(7, id.version());
+		assertEquals(2, id.variant());
+		assertEquals(0x0123456789ABL, id.getMostSignificantBits() >>> 16);
+	}
+
+	@Test
+	public void generateIdWhenSameMillisecondThenStillIncreasing() {
+		TimeOrderedIdGenerator ids = new TimeOrderedIdGenerator(() -> 1000L);
+		UUID previous = ids.generateId();
+		for (int i = 0; i < 10000; i++) {
+			UUID next = ids.generateId();
+			assertTrue(Long.compareUnsigned(previous.getMostSignificantBits(), next.getMostSignificantBits()) < 0);
+			previous = next;
+		}
+	}
+
+	@Test
+	public void generateIdWhenClockGoesBackwardsThenStillIncreasing() {
+		long[] now = { 5000L };
+		TimeOrderedIdGenerator ids = new TimeOrderedIdGenerator(() -> now[0]);
+		UUID first = ids.generateId();
+		now[0] = 4000L;
+		UUID second = ids.generateId();
+		assertTrue(Long.compareUnsigned(first.getMostSignificantBits(), second.getMostSignificantBits()) < 0);
+	}
+}
@@ -0,0 +1,74 @@
+package io.jzheaux.springsecurity.userprofiles;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.MockMvcPrint;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@RunWith(SpringRunner.class)
+@AutoConfigureMockMvc(print=MockMvcPrint.NONE)
+@SpringBootTest(classes=UserProfilesApplication.class)
+@WithMockUser
+public class UserProfilesApplicationTests {
+	@Autowired
+	MockMvc mvc;
+
+	@Autowired
+	UserProfileRepository profiles;
+
+	@Test
+	public void readWhenKnownThenFullNameWithETagAndLastModified() throws Exception {
+		this.mvc.perform(get("/user/user/fullName"))
+				.andExpect(status().isOk())
+				.andExpect(content().string("User Userson"))
+				.andExpect(header().string(HttpHeaders.ETAG, "\"0\""))
+				.andExpect(header().exists(HttpHeaders.LAST_MODIFIED));
+	}
+
+	@Test
+	public void readWhenIfNoneMatchCurrentThenNotModified() throws Exception {
+		String etag = this.mvc.perform(get("/user/hasread/fullName"))
+				.andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+		this.mvc.perform(get("/user/hasread/fullName").header(HttpHeaders.IF_NONE_MATCH, etag))
+				.andExpect(status().isNotModified())
+				.andExpect(content().string(""));
+	}
+
+	@Test
+	public void readWhenUnknownThenNotFound() throws Exception {
+		this.mvc.perform(get("/user/unknown/fullName"))
+				.andExpect(status().isNotFound());
+	}
+
+	@Test
+	public void readWhenUnknownThenMissIsCached() throws Exception {
+		this.mvc.perform(get("/user/latecomer/fullName"))
+				.andExpect(status().isNotFound());
+		this.profiles.save(new UserProfile("latecomer", "Late Comer"));
+		this.mvc.perform(get("/user/latecomer/fullName"))
+				.andExpect(status().isNotFound());
+	}
+
+	@Test
+	public void readAllWhenSomeUnknownThenOnlyKnownFullNames() throws Exception {
+		this.mvc.perform(post("/users/fullNames").with(csrf())
+				.contentType(MediaType.APPLICATION_JSON)
+				.content("[\"user\", \"unknown\", \"admin\"]"))
+				.andExpect(status().isOk())
+				.andExpect(content().json("{\"user\":\"User Userson\",\"admin\":\"Admin Adminson\"}", true));
+	}
+}